@@ -0,0 +1,55 @@
+package jica.spb.async;
+
+import jica.spb.async.model.BundleResult;
+import jica.spb.async.model.FunctionWrapper;
+import jica.spb.async.model.Result;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the per-task cost of submitting work through {@link AsyncLoop}. Run with the {@code jmh} profile, which
+ * attaches the GC profiler to report the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncLoopBenchmark {
+
+    @Param({"1", "1000"})
+    int size;
+
+    private final AsyncLoop asyncLoop = new AsyncLoop();
+
+    private List<Supplier<Integer>> suppliers;
+
+    private List<FunctionWrapper<Integer, Integer>> wrappers;
+
+    @Setup
+    public void setup() {
+        suppliers = IntStream.range(0, size).<Supplier<Integer>>mapToObj(i -> () -> i).toList();
+        wrappers = IntStream.range(0, size).boxed().map(FunctionWrapper.of((Integer i) -> i + 1)).toList();
+    }
+
+    @Benchmark
+    public Result<Integer> getSingle() {
+        return asyncLoop.get(suppliers.get(0));
+    }
+
+    @Benchmark
+    public BundleResult<Integer> getBundle() {
+        return asyncLoop.get(suppliers);
+    }
+
+    @Benchmark
+    public BundleResult<Integer> applyBundle() {
+        return asyncLoop.apply(wrappers);
+    }
+
+}
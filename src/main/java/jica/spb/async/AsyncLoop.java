@@ -1,16 +1,14 @@
 package jica.spb.async;
 
 import io.activej.eventloop.Eventloop;
-import io.activej.promise.Promise;
-import io.activej.promise.SettablePromise;
+import jica.spb.async.TaskGroup.TaskFactory;
 import jica.spb.async.model.*;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -22,6 +20,24 @@ import java.util.stream.Stream;
 @Slf4j
 public class AsyncLoop {
 
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * Creates a new AsyncLoop which submits all tasks of a bundle at once.
+     */
+    public AsyncLoop() {
+        this(null);
+    }
+
+    /**
+     * Creates a new AsyncLoop which keeps the number of tasks in flight within the adaptive limit of a limiter.
+     *
+     * @param limiter The limiter deciding how many tasks may be in flight, may be {@code null} for no limit.
+     */
+    public AsyncLoop(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
     private <T> T withEventLoop(Function<Eventloop, T> callBack) {
         try {
             Eventloop eventloop = Eventloop.create().withCurrentThread();
@@ -83,11 +99,7 @@ public class AsyncLoop {
      */
     public <T> Result<T> get(Supplier<T> supplier) {
         Objects.requireNonNull(supplier);
-        return withEventLoop(eventloop -> {
-            Promise<T> promise = createPromise(supplier);
-            eventloop.run();
-            return Result.fromPromise(promise);
-        });
+        return runTask(supplier, AsyncTask::ofSupplier);
     }
 
     /**
@@ -98,14 +110,23 @@ public class AsyncLoop {
      * @return The results of the suppliers wrapped in a BundleResult.
      */
     public <T> BundleResult<T> get(Collection<Supplier<T>> suppliers) {
+        return get(suppliers, null);
+    }
+
+    /**
+     * Retrieves results from a collection of suppliers executed on an event loop, handling each result as soon as its
+     * supplier completes.
+     *
+     * @param suppliers The collection of suppliers whose results are to be retrieved.
+     * @param handler   The handler invoked on the event loop thread for each result.
+     * @param <T>       The type of the result.
+     * @return The results of the suppliers wrapped in a BundleResult.
+     */
+    public <T> BundleResult<T> get(Collection<Supplier<T>> suppliers, ResultHandler<T> handler) {
         if (nullOrEmpty(suppliers))
             return BundleResult.empty();
 
-        return withEventLoop(eventloop -> {
-            List<Promise<T>> promises = suppliers.stream().map(this::createPromise).toList();
-            eventloop.run();
-            return BundleResult.fromPromises(promises);
-        });
+        return runTasks(suppliers, AsyncTask::ofSupplier, handler);
     }
 
     /**
@@ -116,18 +137,27 @@ public class AsyncLoop {
      * @return The results of the suppliers wrapped in a BundleResult.
      */
     public <T> BundleResult<T> get(Stream<Supplier<T>> stream) {
+        return get(stream, null);
+    }
+
+    /**
+     * Retrieves results from a stream of suppliers executed on an event loop, handling each result as soon as its
+     * supplier completes.
+     *
+     * @param stream  The stream of suppliers whose results are to be retrieved.
+     * @param handler The handler invoked on the event loop thread for each result.
+     * @param <T>     The type of the result.
+     * @return The results of the suppliers wrapped in a BundleResult.
+     */
+    public <T> BundleResult<T> get(Stream<Supplier<T>> stream, ResultHandler<T> handler) {
         if (stream == null)
             return null;
 
-        return get(stream.toList());
+        return runTasks(stream::iterator, AsyncTask::ofSupplier, handler);
     }
 
     public <T> Result<Void> accept(ConsumerWrapper<T> wrapper) {
-        return withEventLoop(eventloop -> {
-            Promise<Void> promise = createConsumerPromise(wrapper);
-            eventloop.run();
-            return Result.fromPromise(promise);
-        });
+        return runTask(wrapper, AsyncTask::ofConsumer);
     }
 
     /**
@@ -135,14 +165,22 @@ public class AsyncLoop {
      *
      * @param wrappers The list of consumer wrappers containing the consumer tasks.
      * @param <T>      The type of input for the consumer.
-     * @return A BundleResult containing promises of the executed consumer tasks.
+     * @return A BundleResult containing results of the executed consumer tasks.
      */
     public <T> BundleResult<Void> accept(List<ConsumerWrapper<T>> wrappers) {
-        return withEventLoop(eventloop -> {
-            List<Promise<Void>> promises = wrappers.stream().map(this::createConsumerPromise).toList();
-            eventloop.run();
-            return BundleResult.fromPromises(promises);
-        });
+        return accept(wrappers, null);
+    }
+
+    /**
+     * Executes a collection of consumer tasks on an event loop, handling each result as soon as its task completes.
+     *
+     * @param wrappers The list of consumer wrappers containing the consumer tasks.
+     * @param handler  The handler invoked on the event loop thread for each result.
+     * @param <T>      The type of input for the consumer.
+     * @return A BundleResult containing results of the executed consumer tasks.
+     */
+    public <T> BundleResult<Void> accept(List<ConsumerWrapper<T>> wrappers, ResultHandler<Void> handler) {
+        return runTasks(wrappers, AsyncTask::ofConsumer, handler);
     }
 
     /**
@@ -150,23 +188,22 @@ public class AsyncLoop {
      *
      * @param stream The stream of consumer wrappers containing the consumer tasks.
      * @param <T>    The type of input for the consumer.
-     * @return A BundleResult containing promises of the executed consumer tasks.
+     * @return A BundleResult containing results of the executed consumer tasks.
      */
     public <T> BundleResult<Void> accept(Stream<ConsumerWrapper<T>> stream) {
-        return accept(stream.toList());
+        return accept(stream, null);
     }
 
     /**
-     * Creates a promise for executing a consumer task on an event loop.
+     * Executes a stream of consumer tasks on an event loop, handling each result as soon as its task completes.
      *
-     * @param wrapper The consumer wrapper containing the consumer task.
+     * @param stream  The stream of consumer wrappers containing the consumer tasks.
+     * @param handler The handler invoked on the event loop thread for each result.
      * @param <T>     The type of input for the consumer.
-     * @return A Promise representing the execution of the consumer task.
+     * @return A BundleResult containing results of the executed consumer tasks.
      */
-    private <T> Promise<Void> createConsumerPromise(ConsumerWrapper<T> wrapper) {
-        Objects.requireNonNull(wrapper);
-        Objects.requireNonNull(wrapper.getConsumer());
-        return createPromise(wrapper);
+    public <T> BundleResult<Void> accept(Stream<ConsumerWrapper<T>> stream, ResultHandler<Void> handler) {
+        return runTasks(stream::iterator, AsyncTask::ofConsumer, handler);
     }
 
     /**
@@ -178,11 +215,7 @@ public class AsyncLoop {
      * @return A Result containing the result of the executed function task.
      */
     public <I, O> Result<O> apply(FunctionWrapper<I, O> wrapper) {
-        return withEventLoop(eventloop -> {
-            Promise<O> promise = createFunctionPromise(wrapper);
-            eventloop.run();
-            return Result.fromPromise(promise);
-        });
+        return runTask(wrapper, AsyncTask::ofFunction);
     }
 
     /**
@@ -191,14 +224,23 @@ public class AsyncLoop {
      * @param wrappers The collection of function wrappers containing the function tasks.
      * @param <I>      The input type for the function.
      * @param <O>      The output type of the function.
-     * @return A BundleResult containing promises of the executed function tasks.
+     * @return A BundleResult containing results of the executed function tasks.
      */
     public <I, O> BundleResult<O> apply(Collection<FunctionWrapper<I, O>> wrappers) {
-        return withEventLoop(eventloop -> {
-            List<Promise<O>> promises = wrappers.stream().map(this::createFunctionPromise).toList();
-            eventloop.run();
-            return BundleResult.fromPromises(promises);
-        });
+        return apply(wrappers, null);
+    }
+
+    /**
+     * Executes a collection of function tasks on an event loop, handling each result as soon as its task completes.
+     *
+     * @param wrappers The collection of function wrappers containing the function tasks.
+     * @param handler  The handler invoked on the event loop thread for each result.
+     * @param <I>      The input type for the function.
+     * @param <O>      The output type of the function.
+     * @return A BundleResult containing results of the executed function tasks.
+     */
+    public <I, O> BundleResult<O> apply(Collection<FunctionWrapper<I, O>> wrappers, ResultHandler<O> handler) {
+        return runTasks(wrappers, AsyncTask::ofFunction, handler);
     }
 
     /**
@@ -207,62 +249,63 @@ public class AsyncLoop {
      * @param stream The stream of function wrappers containing the function tasks.
      * @param <I>    The input type for the function.
      * @param <O>    The output type of the function.
-     * @return A BundleResult containing promises of the executed function tasks.
+     * @return A BundleResult containing results of the executed function tasks.
      */
     public <I, O> BundleResult<O> apply(Stream<FunctionWrapper<I, O>> stream) {
-        return apply(stream.toList());
-    }
-
-
-    private <I, O> Promise<O> createFunctionPromise(FunctionWrapper<I, O> wrapper) {
-        Objects.requireNonNull(wrapper);
-        Objects.requireNonNull(wrapper.getFunction());
-        return createPromise(wrapper);
-    }
-
-    private <I, O> Promise<O> createPromise(FunctionWrapper<I, O> wrapper) {
-        return exceptionalPromise(CompletableFuture.supplyAsync(functionWrapper(wrapper)));
-    }
-
-
-    private <T> Promise<Void> createPromise(ConsumerWrapper<T> wrapper) {
-        return exceptionalPromise(CompletableFuture.supplyAsync(consumerWrapper(wrapper)));
-    }
-
-    private <O> Promise<O> createPromise(Supplier<O> supplier) {
-        return exceptionalPromise(CompletableFuture.supplyAsync(supplier));
-    }
-
-    private <T> SettablePromise<T> exceptionalPromise(CompletableFuture<T> completableFuture) {
-        var promise = (SettablePromise<T>) Promise.ofFuture(completableFuture);
-        completableFuture.exceptionally(handleException(promise));
-        return promise;
+        return apply(stream, null);
     }
 
-    private <I, O> Supplier<O> functionWrapper(FunctionWrapper<I, O> wrapper) {
-        return () -> wrapper.getFunction().apply(wrapper.getInput());
+    /**
+     * Executes a stream of function tasks on an event loop, handling each result as soon as its task completes.
+     *
+     * @param stream  The stream of function wrappers containing the function tasks.
+     * @param handler The handler invoked on the event loop thread for each result.
+     * @param <I>     The input type for the function.
+     * @param <O>     The output type of the function.
+     * @return A BundleResult containing results of the executed function tasks.
+     */
+    public <I, O> BundleResult<O> apply(Stream<FunctionWrapper<I, O>> stream, ResultHandler<O> handler) {
+        return runTasks(stream::iterator, AsyncTask::ofFunction, handler);
     }
 
-    private <I> Supplier<Void> consumerWrapper(ConsumerWrapper<I> wrapper) {
-        return () -> {
-            wrapper.getConsumer().accept(wrapper.getInput());
-            return null;
-        };
+    /**
+     * Submits a single task on an event loop and waits for its result.
+     *
+     * @param work    The work to be executed.
+     * @param factory The factory creating the task for the work.
+     * @param <W>     The type of the work.
+     * @param <T>     The type of the result.
+     * @return The result of the task.
+     */
+    private <W, T> Result<T> runTask(W work, TaskFactory<W, T> factory) {
+        return withEventLoop(eventloop -> {
+            TaskGroup<W, T> group = new TaskGroup<>(eventloop, Collections.singletonList(work).iterator(), 1,
+                    factory, null, limiter);
+            eventloop.post(group::start);
+            eventloop.run();
+            return group.result(0);
+        });
     }
 
-    private <T> Function<Throwable, T> handleException(SettablePromise<T> settablePromise) {
-        return throwable -> {
-            if (throwable instanceof CompletionException exception) {
-                if (exception.getCause() instanceof Exception cause) {
-                    settablePromise.setException(cause);
-                } else {
-                    settablePromise.setException(exception);
-                }
-            } else {
-                settablePromise.setException(new AsyncException(throwable));
-            }
-            return null;
-        };
+    /**
+     * Submits a task for each work item on an event loop and waits for all of them to settle. The work items are
+     * pulled lazily once the event loop is running.
+     *
+     * @param works   The work items to be executed.
+     * @param factory The factory creating the task for each work item.
+     * @param handler The handler invoked as each task settles, may be {@code null}.
+     * @param <W>     The type of the work.
+     * @param <T>     The type of the result.
+     * @return The results of the tasks, in the order of the work items.
+     */
+    private <W, T> BundleResult<T> runTasks(Iterable<W> works, TaskFactory<W, T> factory, ResultHandler<T> handler) {
+        return withEventLoop(eventloop -> {
+            int sizeHint = works instanceof Collection<?> collection ? collection.size() : 0;
+            TaskGroup<W, T> group = new TaskGroup<>(eventloop, works.iterator(), sizeHint, factory, handler, limiter);
+            eventloop.post(group::start);
+            eventloop.run();
+            return group.toBundle();
+        });
     }
 
     private boolean nullOrEmpty(Collection<?> collection) {
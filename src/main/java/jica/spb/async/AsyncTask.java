@@ -0,0 +1,163 @@
+package jica.spb.async;
+
+import jica.spb.async.model.AsyncException;
+import jica.spb.async.model.ConsumerWrapper;
+import jica.spb.async.model.FunctionWrapper;
+import jica.spb.async.model.Result;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * A unit of work submitted by {@link AsyncLoop}.
+ * <p>
+ * The task is run on a worker thread, either forked as a {@link ForkJoinTask} or passed as a {@link Runnable} to an
+ * executor, and then hands its settlement back to the event loop, where it settles its {@link Result} into its
+ * {@link TaskGroup}. This replaces the chain of capturing supplier, {@code CompletableFuture} and bridged
+ * {@code Promise} previously allocated per task.
+ *
+ * @param <T> The type of the result value.
+ */
+abstract class AsyncTask<T> extends ForkJoinTask<Void> implements Runnable {
+
+    /**
+     * Mirrors the executor choice of {@code CompletableFuture.supplyAsync}: the common pool is only used if it
+     * actually provides parallelism, otherwise every task gets its own thread.
+     */
+    private static final boolean USE_COMMON_POOL = ForkJoinPool.getCommonPoolParallelism() > 1;
+
+    private final TaskGroup<?, T> group;
+
+    private final int index;
+
+    private final Runnable settlement = this::settle;
+
+    private long submittedAt;
+
+    private long completedAt;
+
+    private T value;
+
+    private Throwable exception;
+
+    AsyncTask(TaskGroup<?, T> group, int index) {
+        this.group = group;
+        this.index = index;
+    }
+
+    /**
+     * Creates a task which completes with the value of a supplier.
+     */
+    static <R> AsyncTask<R> ofSupplier(TaskGroup<?, R> group, Supplier<R> supplier, int index) {
+        Objects.requireNonNull(supplier);
+        return new AsyncTask<>(group, index) {
+            @Override
+            protected R compute() {
+                return supplier.get();
+            }
+        };
+    }
+
+    /**
+     * Creates a task which completes with the output of the wrapped function.
+     */
+    static <I, O> AsyncTask<O> ofFunction(TaskGroup<?, O> group, FunctionWrapper<I, O> wrapper, int index) {
+        Objects.requireNonNull(wrapper);
+        Objects.requireNonNull(wrapper.getFunction());
+        return new AsyncTask<>(group, index) {
+            @Override
+            protected O compute() {
+                return wrapper.getFunction().apply(wrapper.getInput());
+            }
+        };
+    }
+
+    /**
+     * Creates a task which completes once the wrapped consumer has accepted its input.
+     */
+    static <I> AsyncTask<Void> ofConsumer(TaskGroup<?, Void> group, ConsumerWrapper<I> wrapper, int index) {
+        Objects.requireNonNull(wrapper);
+        Objects.requireNonNull(wrapper.getConsumer());
+        return new AsyncTask<>(group, index) {
+            @Override
+            protected Void compute() {
+                wrapper.getConsumer().accept(wrapper.getInput());
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Computes the value of this task on the calling worker thread.
+     *
+     * @return The computed value.
+     */
+    protected abstract T compute();
+
+    /**
+     * Submits this task for execution. The event loop is kept alive until the task has settled its result.
+     *
+     * @param executor The executor to run the task on, or {@code null} for the default one.
+     */
+    void submit(Executor executor) {
+        group.getEventloop().startExternalTask();
+        submittedAt = System.nanoTime();
+        try {
+            if (executor != null) {
+                executor.execute(this);
+            } else if (USE_COMMON_POOL) {
+                fork();
+            } else {
+                new Thread(this).start();
+            }
+        } catch (RuntimeException | Error e) {
+            group.getEventloop().completeExternalTask();
+            throw e;
+        }
+    }
+
+    /**
+     * Computes the value of this task on the calling worker thread and hands its settlement to the event loop.
+     */
+    @Override
+    public final void run() {
+        try {
+            value = compute();
+        } catch (Throwable throwable) {
+            exception = throwable instanceof Exception ? throwable : new AsyncException(throwable);
+        }
+        completedAt = System.nanoTime();
+        group.getEventloop().execute(settlement);
+    }
+
+    @Override
+    protected final boolean exec() {
+        run();
+        return true;
+    }
+
+    /**
+     * Settles this task on the event loop thread.
+     */
+    private void settle() {
+        try {
+            Result<T> result = exception == null ? Result.withValue(value) : Result.withError(exception);
+            group.settle(index, result, completedAt - submittedAt);
+        } finally {
+            group.getEventloop().completeExternalTask();
+        }
+    }
+
+    @Override
+    public final Void getRawResult() {
+        return null;
+    }
+
+    @Override
+    protected final void setRawResult(Void unused) {
+    }
+
+}
@@ -0,0 +1,188 @@
+package jica.spb.async;
+
+import jica.spb.async.model.LimiterMetrics;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of tasks in flight, adapting the limit to the observed task latency.
+ * <p>
+ * The limit follows a gradient: the lowest recently observed latency, taken as the latency without load, is compared
+ * with the short-term average latency. While the average stays within a tolerance of the lowest latency the limit
+ * grows by the square root of itself, and as soon as tasks start to queue up, and the average rises above it, the
+ * limit shrinks proportionally, down to the configured minimum.
+ * The lowest latency is taken over the last two windows of samples, so that it follows lasting changes in the
+ * latency of the tasks themselves.
+ * <p>
+ * Tasks admitted by a limiter run on threads of the limiter's own, created as needed and released after a minute of
+ * idleness, rather than on the common fork-join pool. The number of tasks actually running can thereby reach the
+ * limit, even when the tasks block, for example on database calls.
+ * <p>
+ * A limiter may be shared by several {@link AsyncLoop}s and threads. A bundle always keeps at least one of its own
+ * tasks in flight, so the limit may be exceeded by the number of bundles running concurrently.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final int SHORT_WINDOW = 10;
+
+    private static final int MIN_WINDOW = 600;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final Executor executor = Executors.newCachedThreadPool(new LimiterThreadFactory());
+
+    private double limit;
+
+    private int inFlight;
+
+    private long sampleCount;
+
+    private long lastLatency;
+
+    private double shortLatency;
+
+    private long minLatency = Long.MAX_VALUE;
+
+    private long windowMinLatency = Long.MAX_VALUE;
+
+    private ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Creates a new ConcurrencyLimiter starting at 20 tasks in flight, adapting between 1 and 1000.
+     *
+     * @return A new ConcurrencyLimiter instance.
+     */
+    public static ConcurrencyLimiter create() {
+        return create(20, 1, 1000);
+    }
+
+    /**
+     * Creates a new ConcurrencyLimiter with the given limits.
+     *
+     * @param initialLimit The number of tasks allowed in flight before any latency has been observed.
+     * @param minLimit     The lowest the limit may shrink to.
+     * @param maxLimit     The highest the limit may grow to.
+     * @return A new ConcurrencyLimiter instance.
+     * @throws IllegalArgumentException If the limits are not positive or the initial limit is out of bounds.
+     */
+    public static ConcurrencyLimiter create(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits: initial=" + initialLimit + ", min=" + minLimit + ", max=" + maxLimit);
+        }
+        return new ConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Returns the executor running the tasks admitted by this limiter.
+     *
+     * @return The executor of this limiter.
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Acquires a permit if the limit has not been reached.
+     *
+     * @return {@code true} if a permit was acquired, otherwise {@code false}.
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Acquires a permit regardless of the limit.
+     */
+    synchronized void acquire() {
+        inFlight++;
+    }
+
+    /**
+     * Releases a permit whose task was never started, without taking a latency sample.
+     */
+    synchronized void cancel() {
+        inFlight--;
+    }
+
+    /**
+     * Releases a permit and adapts the limit to the latency of the task which held it.
+     *
+     * @param latencyNanos The time between submitting and completing the task, in nanoseconds.
+     */
+    synchronized void release(long latencyNanos) {
+        int previousInFlight = inFlight--;
+        sampleCount++;
+        lastLatency = latencyNanos;
+        shortLatency += (latencyNanos - shortLatency) / Math.min(sampleCount, SHORT_WINDOW);
+        windowMinLatency = Math.min(windowMinLatency, latencyNanos);
+        minLatency = Math.min(minLatency, latencyNanos);
+        if (sampleCount % MIN_WINDOW == 0) {
+            minLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+        }
+
+        // The limit is not being used, so the samples say nothing about whether it is too low.
+        if (previousInFlight < limit / 2) {
+            return;
+        }
+
+        // Probing for more throughput only while tasks do not queue up lets the limit back off all the way to the
+        // minimum, rather than settling where the growth balances the shrinking.
+        double gradient = Math.max(0.5, TOLERANCE * minLatency / shortLatency);
+        double newLimit = gradient < 1.0 ? limit * gradient : limit + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    /**
+     * Returns the current number of tasks allowed to be in flight.
+     *
+     * @return The current limit.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns a snapshot of the current limit and the latency samples behind it.
+     *
+     * @return The current LimiterMetrics.
+     */
+    public synchronized LimiterMetrics getMetrics() {
+        return new LimiterMetrics((int) limit, inFlight, sampleCount, lastLatency, (long) shortLatency,
+                minLatency == Long.MAX_VALUE ? 0 : minLatency);
+    }
+
+    private static final class LimiterThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+        private final String prefix = "async-loop-limiter-" + POOL_COUNT.incrementAndGet() + "-";
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
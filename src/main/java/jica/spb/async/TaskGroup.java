@@ -0,0 +1,182 @@
+package jica.spb.async;
+
+import io.activej.eventloop.Eventloop;
+import jica.spb.async.model.AsyncException;
+import jica.spb.async.model.BundleResult;
+import jica.spb.async.model.Result;
+import jica.spb.async.model.ResultHandler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The tasks submitted together on an event loop, along with the slots their results are settled into.
+ * <p>
+ * Work is pulled lazily from an iterator on the event loop thread, as long as the group has room for another task in
+ * flight. When results are not retained the room is bounded, so that the results of settled tasks and the work not yet
+ * started are never held for the whole group at once. The bound is the limit of the group's limiter if it has one,
+ * and {@link #STREAMING_WINDOW} otherwise.
+ *
+ * @param <W> The type of the work.
+ * @param <T> The type of the result values.
+ */
+final class TaskGroup<W, T> {
+
+    /**
+     * The number of tasks kept in flight by a group which neither retains its results nor has a limiter.
+     */
+    static final int STREAMING_WINDOW = 4 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+
+    private final Eventloop eventloop;
+
+    private final Iterator<W> works;
+
+    private final TaskFactory<W, T> factory;
+
+    private final List<Result<T>> results;
+
+    private final ResultHandler<T> handler;
+
+    private final ConcurrencyLimiter limiter;
+
+    private final int window;
+
+    private AsyncTask<T> next;
+
+    private int nextIndex;
+
+    private int inFlight;
+
+    private RuntimeException failure;
+
+    TaskGroup(Eventloop eventloop, Iterator<W> works, int sizeHint, TaskFactory<W, T> factory,
+              ResultHandler<T> handler, ConcurrencyLimiter limiter) {
+        boolean retainResults = handler == null || handler.isRetainResults();
+        this.eventloop = eventloop;
+        this.works = works;
+        this.factory = factory;
+        this.results = retainResults ? new ArrayList<>(sizeHint) : null;
+        this.handler = handler;
+        this.limiter = limiter;
+        this.window = retainResults || limiter != null ? Integer.MAX_VALUE : STREAMING_WINDOW;
+    }
+
+    Eventloop getEventloop() {
+        return eventloop;
+    }
+
+    /**
+     * Submits the first tasks of this group. Must be called on the event loop thread.
+     */
+    void start() {
+        drain();
+    }
+
+    /**
+     * Settles the result of a task and submits the tasks it made room for. Must be called on the event loop thread.
+     * Once the handler has failed, it is not invoked for the results still settling.
+     *
+     * @param index        The index of the task within this group.
+     * @param result       The result of the task.
+     * @param latencyNanos The time between submitting and completing the task, in nanoseconds.
+     */
+    void settle(int index, Result<T> result, long latencyNanos) {
+        inFlight--;
+        if (limiter != null) {
+            limiter.release(latencyNanos);
+        }
+        if (results != null) {
+            results.set(index, result);
+        }
+        if (handler != null && failure == null) {
+            try {
+                handler.handle(result);
+            } catch (Throwable throwable) {
+                // The caller must learn that its results were not all handled, so no further work is started.
+                failure = throwable instanceof RuntimeException exception ? exception : new AsyncException(throwable);
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        while (failure == null && inFlight < window) {
+            if (next == null) {
+                try {
+                    if (!works.hasNext()) {
+                        return;
+                    }
+                    next = factory.create(this, works.next(), nextIndex);
+                } catch (RuntimeException e) {
+                    failure = e;
+                    return;
+                }
+            }
+            if (limiter != null) {
+                if (inFlight == 0) {
+                    // Without a task in flight nothing would settle to drain the remaining work later on.
+                    limiter.acquire();
+                } else if (!limiter.tryAcquire()) {
+                    return;
+                }
+            }
+            AsyncTask<T> task = next;
+            next = null;
+            try {
+                task.submit(limiter == null ? null : limiter.getExecutor());
+            } catch (RuntimeException | Error e) {
+                if (limiter != null) {
+                    limiter.cancel();
+                }
+                failure = e instanceof RuntimeException exception ? exception : new AsyncException(e);
+                return;
+            }
+            if (results != null) {
+                results.add(null);
+            }
+            nextIndex++;
+            inFlight++;
+        }
+    }
+
+    /**
+     * Returns the result of the task at the given index, or {@code null} if results are not retained.
+     *
+     * @param index The index of the task within this group.
+     * @return The result of the task.
+     * @throws RuntimeException If pulling, creating or submitting a task of this group, or handling a result, failed.
+     */
+    Result<T> result(int index) {
+        if (failure != null) {
+            throw failure;
+        }
+        return results == null ? null : results.get(index);
+    }
+
+    /**
+     * Bundles the retained results of this group.
+     *
+     * @return A BundleResult containing the results, or an empty one if results are not retained.
+     * @throws RuntimeException If pulling, creating or submitting a task of this group, or handling a result, failed.
+     */
+    BundleResult<T> toBundle() {
+        if (failure != null) {
+            throw failure;
+        }
+        return results == null ? BundleResult.empty() : BundleResult.fromResults(results);
+    }
+
+    /**
+     * Creates the task for a work item of a group.
+     *
+     * @param <W> The type of the work.
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    interface TaskFactory<W, T> {
+        AsyncTask<T> create(TaskGroup<W, T> group, W work, int index);
+    }
+
+}
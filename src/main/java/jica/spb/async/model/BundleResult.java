@@ -33,6 +33,17 @@ public class BundleResult<T> {
         return new BundleResult<>(promises.stream().map(Result::fromPromise).toList());
     }
 
+    /**
+     * Creates a new BundleResult backed by a list of results.
+     *
+     * @param results The list of results to be bundled.
+     * @param <R>     The type of the result values.
+     * @return A BundleResult containing the results.
+     */
+    public static <R> BundleResult<R> fromResults(List<Result<R>> results) {
+        return new BundleResult<>(Collections.unmodifiableList(results));
+    }
+
     /**
      * Creates an empty BundleResult.
      *
@@ -0,0 +1,43 @@
+package jica.spb.async.model;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * A snapshot of the state of a concurrency limiter and of the latency samples behind its current limit.
+ */
+@Value
+@RequiredArgsConstructor
+public class LimiterMetrics {
+
+    /**
+     * The current number of tasks allowed to be in flight.
+     */
+    int limit;
+
+    /**
+     * The number of tasks in flight when the snapshot was taken.
+     */
+    int inFlight;
+
+    /**
+     * The total number of latency samples recorded.
+     */
+    long sampleCount;
+
+    /**
+     * The latency of the most recently completed task, in nanoseconds.
+     */
+    long lastLatencyNanos;
+
+    /**
+     * The short-term average latency, in nanoseconds.
+     */
+    long shortLatencyNanos;
+
+    /**
+     * The lowest recently observed latency, in nanoseconds, which the short-term average is compared against.
+     */
+    long minLatencyNanos;
+
+}
@@ -0,0 +1,100 @@
+package jica.spb.async.model;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.util.function.Consumer;
+
+/**
+ * Handles the results of a bundle one by one, as soon as each task of the bundle settles.
+ * <p>
+ * The handler is invoked on the event loop thread, so it never runs concurrently with itself. If the handler throws,
+ * no further work of the bundle is started and the exception is rethrown, wrapped in an {@link AsyncException}, once
+ * the tasks already running have completed.
+ *
+ * @param <T> The type of the result values.
+ */
+@Value
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ResultHandler<T> {
+
+    Consumer<Result<T>> consumer;
+
+    boolean retainResults;
+
+    /**
+     * Creates a new ResultHandler which does nothing but retain the results.
+     *
+     * @param <R> The type of the result values.
+     * @return A new ResultHandler instance.
+     */
+    public static <R> ResultHandler<R> create() {
+        return new ResultHandler<>(result -> {
+        }, true);
+    }
+
+    /**
+     * Creates a new ResultHandler which performs the given action on each result.
+     *
+     * @param consumer The action to be performed on each result.
+     * @param <R>      The type of the result values.
+     * @return A new ResultHandler instance.
+     */
+    public static <R> ResultHandler<R> of(Consumer<Result<R>> consumer) {
+        return new ResultHandler<>(consumer, true);
+    }
+
+    /**
+     * Adds an action to be performed on each result.
+     *
+     * @param consumer The action to be performed on each result.
+     * @return A new ResultHandler performing this handler's actions followed by the given action.
+     */
+    public ResultHandler<T> onEach(Consumer<Result<T>> consumer) {
+        return new ResultHandler<>(this.consumer.andThen(consumer), retainResults);
+    }
+
+    /**
+     * Adds an action to be performed on each non-null result value.
+     *
+     * @param consumer The action to be performed on each value.
+     * @return A new ResultHandler performing this handler's actions followed by the given action.
+     */
+    public ResultHandler<T> onValue(Consumer<T> consumer) {
+        return onEach(result -> result.whenValue(consumer));
+    }
+
+    /**
+     * Adds an action to be performed on each exception.
+     *
+     * @param consumer The action to be performed on each exception.
+     * @return A new ResultHandler performing this handler's actions followed by the given action.
+     */
+    public ResultHandler<T> onError(Consumer<Throwable> consumer) {
+        return onEach(result -> result.whenException(consumer));
+    }
+
+    /**
+     * Stops the results from being retained once they have been handled. The bundle returned for this handler is
+     * then always empty, and only a bounded number of tasks is kept in flight, with further work pulled from the
+     * input as tasks settle. The bound is the limit of the loop's concurrency limiter if it has one, and a small
+     * multiple of the common pool's parallelism otherwise. Given a lazy input such as a stream, memory use is then
+     * independent of the input size.
+     *
+     * @return A new ResultHandler which does not retain results.
+     */
+    public ResultHandler<T> discardResults() {
+        return new ResultHandler<>(consumer, false);
+    }
+
+    /**
+     * Performs the actions of this handler on the given result.
+     *
+     * @param result The result to be handled.
+     */
+    public void handle(Result<T> result) {
+        consumer.accept(result);
+    }
+
+}
@@ -0,0 +1,98 @@
+package jica.spb.async;
+
+import jica.spb.async.model.AsyncException;
+import jica.spb.async.model.BundleResult;
+import jica.spb.async.model.FunctionWrapper;
+import jica.spb.async.model.Result;
+import jica.spb.async.model.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLoopTest {
+
+    private final AsyncLoop asyncLoop = new AsyncLoop();
+
+    @Test
+    void getReturnsValue() {
+        Result<Integer> result = asyncLoop.get(() -> 42);
+
+        assertTrue(result.hasValue());
+        assertEquals(42, result.getValue());
+    }
+
+    @Test
+    void getReturnsExceptionAsThrown() {
+        IllegalStateException exception = new IllegalStateException("failed");
+
+        Result<Object> result = asyncLoop.get(() -> {
+            throw exception;
+        });
+
+        assertTrue(result.hasException());
+        assertSame(exception, result.getException());
+    }
+
+    @Test
+    void getWrapsErrorInAsyncException() {
+        AssertionError error = new AssertionError("failed");
+
+        Result<Object> result = asyncLoop.get(() -> {
+            throw error;
+        });
+
+        assertTrue(result.hasException());
+        assertInstanceOf(AsyncException.class, result.getException());
+        assertSame(error, result.getException().getCause());
+    }
+
+    @Test
+    void applyKeepsOrderOfInputs() {
+        BundleResult<Integer> bundle = asyncLoop.apply(Stream.of(1, 2, 3).map(FunctionWrapper.of((Integer i) -> i + 1)));
+
+        assertEquals(List.of(2, 3, 4), bundle.nonNullValues());
+    }
+
+    @Test
+    void discardedResultsKeepBoundedWindowOfLazyWork() {
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger handled = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        Stream<Supplier<Integer>> stream = IntStream.range(0, 1000).mapToObj(i -> {
+            pulled.incrementAndGet();
+            return () -> i;
+        });
+
+        BundleResult<Integer> bundle = asyncLoop.get(stream, ResultHandler.<Integer>create()
+                .onValue(value -> maxOutstanding.accumulateAndGet(pulled.get() - handled.incrementAndGet(), Math::max))
+                .discardResults());
+
+        assertTrue(bundle.getResults().isEmpty());
+        assertEquals(1000, handled.get());
+        assertTrue(maxOutstanding.get() <= TaskGroup.STREAMING_WINDOW);
+    }
+
+    @Test
+    void failingHandlerStopsPullingWork() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<Supplier<Integer>> stream = IntStream.range(0, 1000).mapToObj(i -> {
+            pulled.incrementAndGet();
+            return () -> i;
+        });
+
+        assertThrows(AsyncException.class, () -> asyncLoop.get(stream, ResultHandler.<Integer>create()
+                .onValue(value -> {
+                    throw new IllegalStateException("failed");
+                })
+                .discardResults()));
+
+        assertTrue(pulled.get() <= TaskGroup.STREAMING_WINDOW);
+    }
+
+}
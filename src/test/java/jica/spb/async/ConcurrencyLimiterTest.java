@@ -0,0 +1,139 @@
+package jica.spb.async;
+
+import jica.spb.async.model.AsyncException;
+import jica.spb.async.model.BundleResult;
+import jica.spb.async.model.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void invalidWorkReleasesAllPermits() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(2, 1, 10);
+        AsyncLoop asyncLoop = new AsyncLoop(limiter);
+        List<Supplier<Integer>> suppliers = Arrays.asList(() -> 1, () -> 2, () -> 3, null, () -> 5);
+
+        assertThrows(AsyncException.class, () -> asyncLoop.get(suppliers));
+
+        assertEquals(0, limiter.getMetrics().getInFlight());
+    }
+
+    @Test
+    void failingHandlerFailsBundleAndReleasesAllPermits() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(2, 1, 10);
+        AsyncLoop asyncLoop = new AsyncLoop(limiter);
+        List<Supplier<Integer>> suppliers = List.of(() -> 1, () -> 2, () -> 3, () -> 4, () -> 5);
+        IllegalStateException exception = new IllegalStateException("failed");
+
+        AsyncException thrown = assertThrows(AsyncException.class, () -> asyncLoop.get(suppliers,
+                ResultHandler.<Integer>create().onValue(value -> {
+                    throw exception;
+                })));
+
+        assertSame(exception, thrown.getCause());
+        assertEquals(0, limiter.getMetrics().getInFlight());
+    }
+
+    @Test
+    void blockingTasksRunUpToLimitConcurrently() {
+        int limit = 4 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        AsyncLoop asyncLoop = new AsyncLoop(ConcurrencyLimiter.create(limit, limit, limit));
+        CountDownLatch latch = new CountDownLatch(limit);
+        List<Supplier<Boolean>> suppliers = IntStream.range(0, limit).<Supplier<Boolean>>mapToObj(i -> () -> {
+            latch.countDown();
+            try {
+                return latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+
+        BundleResult<Boolean> bundle = asyncLoop.get(suppliers);
+
+        assertEquals(Collections.nCopies(limit, true), bundle.nonNullValues());
+    }
+
+    @Test
+    void discardedResultsAreBoundedByLimiterRatherThanStreamingWindow() {
+        int window = TaskGroup.STREAMING_WINDOW;
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(window, 1, 4 * window);
+        AsyncLoop asyncLoop = new AsyncLoop(limiter);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Stream<Supplier<Integer>> stream = IntStream.range(0, 40 * window).mapToObj(i -> () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+            return i;
+        });
+
+        asyncLoop.get(stream, ResultHandler.<Integer>create().discardResults());
+
+        assertTrue(limiter.getLimit() > window);
+        assertTrue(maxRunning.get() > window);
+    }
+
+    @Test
+    void slowHandlerDoesNotCountTowardsLatency() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(4, 1, 10);
+        AsyncLoop asyncLoop = new AsyncLoop(limiter);
+        List<Supplier<Integer>> suppliers = IntStream.range(0, 10).<Supplier<Integer>>mapToObj(i -> () -> i).toList();
+
+        asyncLoop.get(suppliers, ResultHandler.<Integer>create().onValue(value -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        assertTrue(limiter.getMetrics().getShortLatencyNanos() < TimeUnit.MILLISECONDS.toNanos(25));
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(4, 1, 100);
+
+        releaseAtLimit(limiter, 50, 1_000_000);
+
+        assertTrue(limiter.getLimit() > 4);
+    }
+
+    @Test
+    void limitShrinksToMinimumWhileLatencyRises() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(20, 1, 100);
+        releaseAtLimit(limiter, 1, 1_000_000);
+
+        releaseAtLimit(limiter, 100, 10_000_000);
+
+        assertEquals(1, limiter.getLimit());
+    }
+
+    private static void releaseAtLimit(ConcurrencyLimiter limiter, int samples, long latencyNanos) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.tryAcquire()) {
+                // Keeps the limit fully used, so that each sample adapts it.
+            }
+            limiter.release(latencyNanos);
+        }
+    }
+
+}